@@ -50,3 +50,19 @@ function afficheTitres(doc) {
       body = document.getElementsByTagName("body").item(0);
       body.appendChild(elementol);
 }
+
+/* Avec ServeurRSS: reçoit seulement les nouveaux articles (Server-Sent Events),
+   déjà mis en forme par le serveur, au lieu de recharger tout le document. */
+function suivreArticles(URI) {
+  var source = new EventSource(URI);
+  source.addEventListener("article", function(e) {
+    var article = JSON.parse(e.data);
+    var liste = document.getElementById("articles");
+    if (liste == null) {
+      liste = document.createElement("ol");
+      liste.id = "articles";
+      document.getElementsByTagName("body").item(0).appendChild(liste);
+    }
+    liste.insertAdjacentHTML("afterbegin", article.html);
+  });
+}
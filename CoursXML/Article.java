@@ -0,0 +1,74 @@
+/**
+* Un élément <item> d'un fil RSS, tel qu'extrait par ledevoir.
+*/
+public class Article {
+    public String titre = "";
+    public String description = "";
+    public String lien = "";
+    public String date = "";
+    public String guid = "";
+
+    // Identifiant de l'article: guid, sinon lien, sinon titre et date
+    // (plusieurs items sans <link> ne se confondent pas)
+    public String cle() {
+        if (!guid.isEmpty()) return guid;
+        if (!lien.isEmpty()) return lien;
+        return titre + "\n" + date;
+    }
+
+    // Rendu HTML d'un article (une entrée de liste).
+    // Le lien vient du fil: seuls http: et https: deviennent cliquables (pas de javascript:)
+    public String html() {
+        String entete = lienWeb(lien) ? "<a href=\"" + echapper(lien) + "\">" + echapper(titre) + "</a>" : echapper(titre);
+        return "<li>" + entete
+            + "<br/><small>" + echapper(date) + "</small>"
+            + "<p>" + echapper(description) + "</p></li>";
+    }
+
+    // Objet JSON de l'article, avec son rendu HTML (fait une seule fois, côté serveur)
+    public String json() {
+        return "{\"titre\":" + chaineJson(titre) + ",\"description\":" + chaineJson(description)
+            + ",\"lien\":" + chaineJson(lien) + ",\"date\":" + chaineJson(date)
+            + ",\"html\":" + chaineJson(html()) + "}";
+    }
+
+    // Lien absolu http: ou https: (majuscules permises)
+    static boolean lienWeb(String lien) {
+        return lien.regionMatches(true, 0, "http://", 0, 7) || lien.regionMatches(true, 0, "https://", 0, 8);
+    }
+
+    // Chaîne JSON entre guillemets
+    public static String chaineJson(String texte) {
+        StringBuilder sb = new StringBuilder(texte.length() + 16).append('"');
+        for (int i = 0; i < texte.length(); i++) {
+            char c = texte.charAt(i);
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20 || c == '\u2028' || c == '\u2029') sb.append(String.format("\\u%04x", (int) c));
+                    else sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    // Remplace les caractères réservés du HTML/XML
+    public static String echapper(String texte) {
+        StringBuilder sb = new StringBuilder(texte.length() + 16);
+        for (int i = 0; i < texte.length(); i++) {
+            char c = texte.charAt(i);
+            switch (c) {
+                case '<': sb.append("&lt;"); break;
+                case '>': sb.append("&gt;"); break;
+                case '&': sb.append("&amp;"); break;
+                case '"': sb.append("&quot;"); break;
+                default: sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -1,9 +1,7 @@
 import org.w3c.dom.*;
 import java.io.*;
+import java.util.*;
 import javax.xml.parsers.*;
-import javax.xml.transform.*;
-import javax.xml.transform.dom.*;
-import javax.xml.transform.stream.*;
 
 
 
@@ -21,6 +19,17 @@ import javax.xml.transform.stream.*;
       // Nom du fichier XML a lire
       String filename = "bottin.xml";
 
+      // Paramètre "cherche" ------------------------------------------
+      // Lecture paresseuse: seules les balises ouvrantes sont survolées,
+      // sans construire le DOM ni réécrire le fichier
+      if (args[0].equals("cherche")) {
+         DocumentParesseux bottin = new DocumentParesseux(filename);
+         for (DocumentParesseux.Entree e : bottin.enfants(bottin.racine(), null, "nom", args[1])) {
+            System.out.println(e.attribut("telephone"));
+         }
+         return;
+      }
+
       Document doc = parser.parse(filename);
       Element racine = doc.getDocumentElement();
       NodeList nl = racine.getChildNodes();
@@ -39,22 +48,6 @@ import javax.xml.transform.stream.*;
       // Paramètre "a" -------------------------------------------------
       else if(args[0].equals("a")) { System.out.println("Vous avez entrer a comme paramètre!");  } 
       
-      // Paramètre "cherche" ------------------------------------------
-      else if (args[0].equals("cherche")) {
-       
-          
-         for (int k = 0; k < nl.getLength(); ++k) {
-         //Parcours la liste
-          if(nl.item(k).getNodeType()==Node.ELEMENT_NODE) {
-            // Créer un élément "noeud" courant 
-            Element e = (Element) nl.item(k);
-             // Compare avec le String args[1]
-             if(e.getAttribute("nom").equals(args[1])) {
-                System.out.println(e.getAttribute("telephone"));
-             }
-          }
-       }      
-      } 
       // Paramètre "ajoute" --------------------------------------------
       else if (args[0].equals("ajoute")) {
        boolean ajout = false;
@@ -74,18 +67,70 @@ import javax.xml.transform.stream.*;
            racine.appendChild(p);
        }
       }
+      // Paramètre "importe" -------------------------------------------
+      // Charge un fichier CSV (nom,telephone) en une seule passe au lieu
+      // de lancer "ajoute" une fois par personne
+      else if (args[0].equals("importe")) {
+         importe(args[1], racine, doc);
+      }
 
 
       // Bloc important -------------------------------------------------
-      TransformerFactory tfact = TransformerFactory.newInstance();
-      Transformer transformer = tfact.newTransformer();
-      transformer.setOutputProperty("encoding", "ISO-8859-1");
-      DOMSource source = new DOMSource(doc);
-      FileWriter fw = new FileWriter(filename);
-      StreamResult result = new StreamResult(fw);    
-      transformer.transform(source, result);
+      // Écriture en flux dans un fichier temporaire, puis renommage (voir EcrivainXML)
+      EcrivainXML.ecrire(doc, filename, "ISO-8859-1");
       // -------------------------------------------------- Fin Main --------------------------------------------------
       }
 
+   // Importation en lot ----------------------------------------------
+   // Le CSV est lu ligne par ligne dans une table de hachage (nom -> telephone).
+   // Une seule passe sur les noeuds "personne" applique les mises à jour,
+   // puis les noms restants sont ajoutés à la fin, comme le ferait "ajoute".
+   // Si un nom apparaît plusieurs fois dans le CSV, le dernier téléphone gagne.
+   // Le CSV est en ISO-8859-1, comme le bottin (et GenerateurDonnees bottincsv).
+   public static void importe(String fichiercsv, Element racine, Document doc) throws IOException {
+      Map<String, String> entrees = new LinkedHashMap<String, String>();
+      BufferedReader lecteur = new BufferedReader(new InputStreamReader(new FileInputStream(fichiercsv), "ISO-8859-1"), 1 << 16);
+      try {
+         String ligne;
+         while ((ligne = lecteur.readLine()) != null) {
+            int virgule = ligne.lastIndexOf(',');
+            // Ignore les lignes vides ou sans téléphone
+            if (virgule < 0) continue;
+            String nom = ligne.substring(0, virgule).trim();
+            String telephone = ligne.substring(virgule + 1).trim();
+            if (nom.isEmpty()) continue;
+            entrees.put(nom, telephone);
+         }
+      } finally {
+         lecteur.close();
+      }
+
+      // Mises à jour: toutes les personnes du même nom reçoivent le téléphone
+      NodeList nl = racine.getChildNodes();
+      Set<String> misajour = new HashSet<String>();
+      for (int k = 0; k < nl.getLength(); ++k) {
+         if (nl.item(k).getNodeType() == Node.ELEMENT_NODE) {
+            Element e = (Element) nl.item(k);
+            String nom = e.getAttribute("nom");
+            String telephone = entrees.get(nom);
+            if (telephone != null) {
+               e.setAttribute("telephone", telephone);
+               misajour.add(nom);
+            }
+         }
+      }
+
+      // Ajouts: dans l'ordre de première apparition dans le CSV
+      for (Map.Entry<String, String> entree : entrees.entrySet()) {
+         if (!misajour.contains(entree.getKey())) {
+            Element p = doc.createElement("personne");
+            p.setAttribute("nom", entree.getKey());
+            p.setAttribute("telephone", entree.getValue());
+            racine.appendChild(p);
+         }
+      }
+      System.out.println(misajour.size() + " mise(s) à jour, " + (entrees.size() - misajour.size()) + " ajout(s)");
+   }
+
 
  }
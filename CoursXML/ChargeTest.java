@@ -0,0 +1,160 @@
+/**
+* Test de charge: lance un outil (sa méthode main) à un débit fixe pendant une durée donnée,
+* puis affiche le débit obtenu, la latence p50/p99 et la mémoire résidente maximale.
+* Les requêtes partent à heure fixe même si les précédentes ne sont pas terminées:
+* la latence est mesurée depuis l'heure prévue, pas depuis le début réel.
+*
+* java ChargeTest <requêtes/s> <secondes> <Classe> [arguments...]
+* java ChargeTest 200 10 xpathsearch inventaire.xml {i%1000}
+* java ChargeTest 5000 10 ServiceInventaire:vendre inventaire.xml {i%1000}
+*
+* {i} est remplacé par le numéro de la requête, {i%N} par ce numéro modulo N.
+* ServiceInventaire:vendre mesure le mode service: une vente d'une unité par requête.
+*/
+import java.io.*;
+import java.lang.reflect.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.regex.*;
+
+public class ChargeTest {
+
+    private static final Pattern VARIABLE = Pattern.compile("\\{i(?:%(\\d+))?\\}");
+
+    // Une requête de test
+    interface Requete {
+        void executer(String[] args) throws Exception;
+
+        default void fermer() throws Exception {}
+    }
+
+    public static void main(String[] args) throws Exception {
+        final int debit = Integer.parseInt(args[0]);
+        int secondes = Integer.parseInt(args[1]);
+        final String[] modele = Arrays.copyOfRange(args, 3, args.length);
+        final Requete requete = requete(args[2], modele);
+        final int total = debit * secondes;
+
+        final long[] latences = new long[total];
+        final AtomicInteger terminees = new AtomicInteger();
+        final AtomicInteger erreurs = new AtomicInteger();
+        final ExecutorService fils = Executors.newCachedThreadPool();
+        ScheduledExecutorService horloge = Executors.newSingleThreadScheduledExecutor();
+
+        // Les outils affichent leurs résultats: on les fait taire pendant le test
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        final long depart = System.nanoTime();
+        final long periode = 1000000000L / debit;
+        final AtomicInteger envoyees = new AtomicInteger();
+        final CountDownLatch fin = new CountDownLatch(total);
+        ScheduledFuture<?> tic = horloge.scheduleAtFixedRate(new Runnable() {
+            public void run() {
+                // Rattrape les tics manqués pour garder le débit visé
+                long dues = Math.min(total, (System.nanoTime() - depart) / periode + 1);
+                while (envoyees.get() < dues) {
+                    final int i = envoyees.getAndIncrement();
+                    final long prevu = depart + i * periode;
+                    fils.execute(new Runnable() {
+                        public void run() {
+                            try {
+                                requete.executer(arguments(modele, i));
+                            } catch (Throwable t) {
+                                erreurs.incrementAndGet();
+                            }
+                            latences[i] = System.nanoTime() - prevu;
+                            terminees.incrementAndGet();
+                            fin.countDown();
+                        }
+                    });
+                }
+            }
+        }, 0, Math.max(periode, 1000000L), TimeUnit.NANOSECONDS);
+
+        long rssmax = 0;
+        while (!fin.await(50, TimeUnit.MILLISECONDS)) {
+            rssmax = Math.max(rssmax, memoire());
+        }
+        rssmax = Math.max(rssmax, memoire());
+        long duree = System.nanoTime() - depart;
+        tic.cancel(false);
+        horloge.shutdown();
+        fils.shutdown();
+        requete.fermer();
+        System.setOut(console);
+
+        Arrays.sort(latences);
+        System.out.println("Requêtes:     " + terminees.get() + " (" + erreurs.get() + " erreur(s))");
+        System.out.printf("Débit:        %.1f requêtes/s (visé: %d)%n", terminees.get() / (duree / 1e9), debit);
+        System.out.printf("Latence p50:  %.3f ms%n", centile(latences, 0.50) / 1e6);
+        System.out.printf("Latence p99:  %.3f ms%n", centile(latences, 0.99) / 1e6);
+        System.out.printf("Latence max:  %.3f ms%n", latences[total - 1] / 1e6);
+        System.out.println("Mémoire max:  " + (rssmax / (1024 * 1024)) + " Mo");
+    }
+
+    private static Requete requete(String classe, String[] modele) throws Exception {
+        if (classe.equals("ServiceInventaire:vendre")) {
+            // Le service garde l'inventaire en mémoire; l'écriture se fait par lots
+            final ServiceInventaire service = new ServiceInventaire(modele[0], false, 10000, 1000);
+            return new Requete() {
+                public void executer(String[] args) {
+                    service.vendre(args[1], 1);
+                }
+
+                public void fermer() throws Exception {
+                    service.fermer();
+                }
+            };
+        }
+        final Method main = Class.forName(classe).getMethod("main", String[].class);
+        return new Requete() {
+            public void executer(String[] args) throws Exception {
+                try {
+                    main.invoke(null, (Object) args);
+                } catch (InvocationTargetException e) {
+                    if (e.getCause() instanceof Exception) throw (Exception) e.getCause();
+                    throw (Error) e.getCause();
+                }
+            }
+        };
+    }
+
+    // Remplace {i} et {i%N} dans les arguments
+    static String[] arguments(String[] modele, long i) {
+        String[] args = new String[modele.length];
+        for (int k = 0; k < modele.length; k++) {
+            Matcher m = VARIABLE.matcher(modele[k]);
+            StringBuffer sb = new StringBuffer();
+            while (m.find()) {
+                long valeur = m.group(1) == null ? i : i % Long.parseLong(m.group(1));
+                m.appendReplacement(sb, Long.toString(valeur));
+            }
+            m.appendTail(sb);
+            args[k] = sb.toString();
+        }
+        return args;
+    }
+
+    private static long centile(long[] triees, double c) {
+        int i = (int) Math.ceil(c * triees.length) - 1;
+        return triees[Math.max(0, Math.min(triees.length - 1, i))];
+    }
+
+    // Mémoire résidente maximale (VmHWM sous Linux), sinon mémoire Java utilisée
+    private static long memoire() {
+        try {
+            for (String ligne : Files.readAllLines(Paths.get("/proc/self/status"))) {
+                if (ligne.startsWith("VmHWM:")) {
+                    return Long.parseLong(ligne.replaceAll("\\D", "")) * 1024;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // Pas de /proc: on se rabat sur la mémoire Java
+        }
+        Runtime r = Runtime.getRuntime();
+        return r.totalMemory() - r.freeMemory();
+    }
+}
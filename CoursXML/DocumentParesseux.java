@@ -0,0 +1,307 @@
+import java.io.*;
+import java.nio.charset.*;
+import java.util.*;
+import javax.xml.parsers.*;
+import org.w3c.dom.*;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+/**
+* Document XML "paresseux": au lieu de construire tout le DOM, on survole
+* les octets du fichier projeté (LecteurMappe) et on ne retient que la position
+* des éléments. Un élément n'est transformé en DOM que si on le demande
+* (materialiser), et le survol peut filtrer par nom de balise et valeur d'attribut.
+*
+* DocumentParesseux doc = new DocumentParesseux("inventaire.xml");
+* DocumentParesseux.Entree p = doc.premier(doc.racine(), "produit", "code", "32");
+* System.out.println(p.attribut("prix"));
+*
+* Limites: encodage compatible ASCII (UTF-8, ISO-8859-1...), entités définies
+* dans une DTD non résolues, préfixes d'espace de noms non interprétés.
+*/
+public class DocumentParesseux {
+
+    // Un élément repéré lors du survol: sa position, pas son contenu
+    public class Entree {
+        public final String nom;
+        final long debut;      // position du '<'
+        final long finBalise;  // position après le '>' de la balise ouvrante
+        final long fin;        // position après la balise fermante (-1 si inconnue)
+        final boolean vide;    // <balise/>
+        private Map<String, String> attributs;
+
+        Entree(String nom, long debut, long finBalise, long fin, boolean vide) {
+            this.nom = nom;
+            this.debut = debut;
+            this.finBalise = finBalise;
+            this.fin = fin;
+            this.vide = vide;
+        }
+
+        // Valeur d'un attribut, lue dans la seule balise ouvrante ("" si absent, comme getAttribute)
+        public String attribut(String nom) {
+            if (attributs == null) attributs = lireAttributs(this);
+            String valeur = attributs.get(nom);
+            return valeur == null ? "" : valeur;
+        }
+    }
+
+    // Condition sur la balise ouvrante d'un élément, évaluée pendant le survol
+    public interface Filtre {
+        boolean accepte(Entree e);
+    }
+
+    private final LecteurMappe lecteur;
+    private final Charset encodage;
+    private final Entree racine;
+
+    public DocumentParesseux(String nomfichier) throws IOException {
+        lecteur = new LecteurMappe(nomfichier);
+        encodage = lireEncodage();
+        racine = trouverRacine();
+    }
+
+    public Entree racine() {
+        return racine;
+    }
+
+    // Enfants directs de parent, filtrés pendant le survol.
+    // nom, attribut et valeur peuvent être null (pas de filtre).
+    public List<Entree> enfants(Entree parent, String nom, String attribut, String valeur) {
+        List<Entree> liste = new ArrayList<Entree>();
+        survoler(parent, nom, filtre(attribut, valeur), liste, false);
+        return liste;
+    }
+
+    // Premier enfant qui répond au filtre: le survol s'arrête dès qu'il est trouvé
+    public Entree premier(Entree parent, String nom, String attribut, String valeur) {
+        return premier(parent, nom, filtre(attribut, valeur));
+    }
+
+    // Même chose avec une condition quelconque (null: pas de filtre)
+    public Entree premier(Entree parent, String nom, Filtre filtre) {
+        List<Entree> liste = new ArrayList<Entree>(1);
+        survoler(parent, nom, filtre, liste, true);
+        return liste.isEmpty() ? null : liste.get(0);
+    }
+
+    // Construit le DOM de cet élément seulement, à partir de ses octets
+    public Element materialiser(Entree e) throws ParserConfigurationException, SAXException, IOException {
+        if (e.fin < 0) throw new IOException("Fin de l'élément <" + e.nom + "> inconnue");
+        InputSource source = new InputSource(lecteur.flux(e.debut, e.fin));
+        source.setEncoding(encodage.name());
+        DocumentBuilder parser = DocumentBuilderFactory.newInstance().newDocumentBuilder();
+        return parser.parse(source).getDocumentElement();
+    }
+
+    // Survol ------------------------------------------------------------------------------
+
+    private void survoler(Entree parent, String nom, Filtre filtre, List<Entree> liste, boolean premier) {
+        if (parent.vide) return;
+        long pos = parent.finBalise;
+        long taille = lecteur.taille();
+        int profondeur = 0;
+        // Enfant direct en cours (sa balise fermante n'est pas encore trouvée)
+        String nomcourant = null;
+        long debutcourant = 0, finbalisecourant = 0;
+
+        while (pos < taille) {
+            if (lecteur.octet(pos) != '<') { pos++; continue; }
+            long balise = pos;
+            byte b = pos + 1 < taille ? lecteur.octet(pos + 1) : 0;
+            if (b == '!' || b == '?') {
+                pos = sauterSpecial(pos);
+            } else if (b == '/') {
+                pos = chercheOctet('>', pos) + 1;
+                if (profondeur == 0) return; // balise fermante du parent
+                if (--profondeur == 0 && accepte(nomcourant, debutcourant, finbalisecourant, nom, filtre)) {
+                    liste.add(new Entree(nomcourant, debutcourant, finbalisecourant, pos, false));
+                    if (premier) return;
+                }
+            } else {
+                long finnom = finDuNom(pos + 1);
+                pos = finBaliseOuvrante(finnom);
+                boolean vide = lecteur.octet(pos - 2) == '/';
+                if (profondeur == 0) {
+                    String n = texte(balise + 1, finnom);
+                    if (vide) {
+                        if (accepte(n, balise, pos, nom, filtre)) {
+                            liste.add(new Entree(n, balise, pos, pos, true));
+                            if (premier) return;
+                        }
+                    } else {
+                        nomcourant = n;
+                        debutcourant = balise;
+                        finbalisecourant = pos;
+                    }
+                }
+                if (!vide) profondeur++;
+            }
+        }
+    }
+
+    // Filtre appliqué pendant le survol, sur la balise ouvrante seulement
+    private boolean accepte(String n, long debut, long finBalise, String nom, Filtre filtre) {
+        if (nom != null && !nom.equals(n)) return false;
+        return filtre == null || filtre.accepte(new Entree(n, debut, finBalise, -1, false));
+    }
+
+    // Attribut présent (valeur null) ou égal à valeur
+    private Filtre filtre(final String attribut, final String valeur) {
+        if (attribut == null) return null;
+        return new Filtre() {
+            public boolean accepte(Entree e) {
+                return valeur == null ? lireAttributs(e).containsKey(attribut) : valeur.equals(e.attribut(attribut));
+            }
+        };
+    }
+
+    private Entree trouverRacine() throws IOException {
+        long pos = 0;
+        long taille = lecteur.taille();
+        while (pos < taille) {
+            if (lecteur.octet(pos) != '<') { pos++; continue; }
+            byte b = pos + 1 < taille ? lecteur.octet(pos + 1) : 0;
+            if (b == '!' || b == '?') {
+                pos = sauterSpecial(pos);
+            } else {
+                long finnom = finDuNom(pos + 1);
+                long fin = finBaliseOuvrante(finnom);
+                boolean vide = lecteur.octet(fin - 2) == '/';
+                return new Entree(texte(pos + 1, finnom), pos, fin, vide ? fin : -1, vide);
+            }
+        }
+        throw new IOException("Aucun élément racine");
+    }
+
+    // Commentaire, CDATA, DOCTYPE ou instruction de traitement: retourne la position qui suit
+    private long sauterSpecial(long pos) {
+        if (commencePar(pos, "<!--")) return cherche("-->", pos + 4) + 3;
+        if (commencePar(pos, "<![CDATA[")) return cherche("]]>", pos + 9) + 3;
+        if (commencePar(pos, "<?")) return cherche("?>", pos + 2) + 2;
+        // <!DOCTYPE ...> avec un éventuel sous-ensemble interne [...]
+        long taille = lecteur.taille();
+        int crochets = 0;
+        for (long p = pos + 2; p < taille; p++) {
+            byte b = lecteur.octet(p);
+            if (b == '[') crochets++;
+            else if (b == ']') crochets--;
+            else if (b == '>' && crochets == 0) return p + 1;
+        }
+        return taille;
+    }
+
+    // Position qui suit le '>' de la balise ouvrante, en ignorant les '>' entre guillemets
+    private long finBaliseOuvrante(long pos) {
+        long taille = lecteur.taille();
+        byte guillemet = 0;
+        for (; pos < taille; pos++) {
+            byte b = lecteur.octet(pos);
+            if (guillemet != 0) {
+                if (b == guillemet) guillemet = 0;
+            } else if (b == '"' || b == '\'') {
+                guillemet = b;
+            } else if (b == '>') {
+                return pos + 1;
+            }
+        }
+        return taille;
+    }
+
+    private long finDuNom(long pos) {
+        long taille = lecteur.taille();
+        while (pos < taille && !LecteurMappe.finDeNom(lecteur.octet(pos))) pos++;
+        return pos;
+    }
+
+    private long chercheOctet(char c, long pos) {
+        long taille = lecteur.taille();
+        while (pos < taille && lecteur.octet(pos) != c) pos++;
+        return pos;
+    }
+
+    private long cherche(String motif, long pos) {
+        long trouve = lecteur.cherche(motif.getBytes(StandardCharsets.US_ASCII), pos);
+        return trouve < 0 ? lecteur.taille() - motif.length() : trouve;
+    }
+
+    private boolean commencePar(long pos, String motif) {
+        if (pos + motif.length() > lecteur.taille()) return false;
+        for (int i = 0; i < motif.length(); i++) {
+            if (lecteur.octet(pos + i) != motif.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private String texte(long debut, long fin) {
+        return new String(octets(debut, fin), encodage);
+    }
+
+    private byte[] octets(long debut, long fin) {
+        byte[] octets = new byte[(int) (fin - debut)];
+        for (int i = 0; i < octets.length; i++) octets[i] = lecteur.octet(debut + i);
+        return octets;
+    }
+
+    // Encodage ---------------------------------------------------------------------------
+
+    // Lit encoding="..." dans la déclaration XML; UTF-8 par défaut
+    private Charset lireEncodage() {
+        if (!commencePar(0, "<?xml")) return StandardCharsets.UTF_8;
+        long fin = cherche("?>", 0);
+        String declaration = new String(octets(0, fin), StandardCharsets.US_ASCII);
+        int i = declaration.indexOf("encoding");
+        if (i < 0) return StandardCharsets.UTF_8;
+        int q = i + 8;
+        while (q < declaration.length() && declaration.charAt(q) != '"' && declaration.charAt(q) != '\'') q++;
+        if (q >= declaration.length()) return StandardCharsets.UTF_8;
+        int fq = declaration.indexOf(declaration.charAt(q), q + 1);
+        return fq < 0 ? StandardCharsets.UTF_8 : Charset.forName(declaration.substring(q + 1, fq));
+    }
+
+    // Attributs --------------------------------------------------------------------------
+
+    private Map<String, String> lireAttributs(Entree e) {
+        Map<String, String> attributs = new HashMap<String, String>();
+        String balise = texte(e.debut, e.finBalise);
+        int i = 1 + e.nom.length();
+        int n = balise.length();
+        while (i < n) {
+            while (i < n && (Character.isWhitespace(balise.charAt(i)) || balise.charAt(i) == '/' || balise.charAt(i) == '>')) i++;
+            int debutnom = i;
+            while (i < n && balise.charAt(i) != '=' && !Character.isWhitespace(balise.charAt(i))) i++;
+            if (i >= n) break;
+            String nom = balise.substring(debutnom, i);
+            while (i < n && balise.charAt(i) != '"' && balise.charAt(i) != '\'') i++;
+            if (i >= n) break;
+            int fin = balise.indexOf(balise.charAt(i), i + 1);
+            if (fin < 0) break;
+            attributs.put(nom, decoder(balise.substring(i + 1, fin)));
+            i = fin + 1;
+        }
+        return attributs;
+    }
+
+    // Remplace les entités prédéfinies et les références de caractères
+    static String decoder(String valeur) {
+        if (valeur.indexOf('&') < 0) return valeur;
+        StringBuilder sb = new StringBuilder(valeur.length());
+        int i = 0;
+        while (i < valeur.length()) {
+            char c = valeur.charAt(i);
+            int pv = c == '&' ? valeur.indexOf(';', i) : -1;
+            if (pv < 0) { sb.append(c); i++; continue; }
+            String entite = valeur.substring(i + 1, pv);
+            if (entite.equals("lt")) sb.append('<');
+            else if (entite.equals("gt")) sb.append('>');
+            else if (entite.equals("amp")) sb.append('&');
+            else if (entite.equals("quot")) sb.append('"');
+            else if (entite.equals("apos")) sb.append('\'');
+            else if (entite.startsWith("#x")) sb.appendCodePoint(Integer.parseInt(entite.substring(2), 16));
+            else if (entite.startsWith("#")) sb.appendCodePoint(Integer.parseInt(entite.substring(1)));
+            else sb.append('&').append(entite).append(';');
+            i = pv + 1;
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,202 @@
+import java.io.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import javax.xml.stream.*;
+import org.w3c.dom.*;
+
+/**
+* Écriture XML en flux (XMLStreamWriter) dans un fichier temporaire,
+* renommé sur le fichier visé seulement à la fin (terminer()).
+* Remplace le bloc DOMSource + Transformer + FileWriter des outils:
+* les enregistrements sont écrits au fur et à mesure, sans arbre complet en mémoire,
+* et un fichier interrompu en cours d'écriture n'écrase jamais l'original.
+*
+* EcrivainXML w = new EcrivainXML("inventaire.xml", "ISO-8859-1");
+* w.debut("inventaire");
+* w.element("produit", "code", "1", "prix", "432.00", "quantite", "10");
+* w.terminer();
+*/
+public class EcrivainXML implements Closeable {
+
+    private final Path cible;
+    private final Path temporaire;
+    private final OutputStream out;
+    private final XMLStreamWriter w;
+    private final CharsetEncoder encodeur;
+    private boolean termine = false;
+
+    public EcrivainXML(String nomfichier, String encodage) throws IOException, XMLStreamException {
+        cible = Paths.get(nomfichier).toAbsolutePath();
+        // Même répertoire que la cible pour que le renommage reste atomique.
+        // Pas de createTempFile: il créerait un fichier accessible à son seul propriétaire (0600).
+        temporaire = cible.resolveSibling(cible.getFileName() + "." + System.nanoTime() + ".tmp");
+        out = new BufferedOutputStream(Files.newOutputStream(temporaire, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE), 1 << 16);
+        // L'écrivain encode lui-même et remplace les caractères hors encodage par &#...;
+        w = XMLOutputFactory.newInstance().createXMLStreamWriter(out, encodage);
+        w.writeStartDocument(encodage, "1.0");
+        encodeur = Charset.forName(encodage).newEncoder();
+    }
+
+    // Accès direct à l'écrivain StAX
+    public XMLStreamWriter flux() {
+        return w;
+    }
+
+    // Ouvre un élément (à refermer par fin())
+    public void debut(String nom) throws XMLStreamException {
+        w.writeStartElement(nom);
+    }
+
+    public void fin() throws XMLStreamException {
+        w.writeEndElement();
+    }
+
+    // Élément vide avec ses attributs donnés par paires nom, valeur
+    public void element(String nom, String... attributs) throws XMLStreamException {
+        w.writeEmptyElement(nom);
+        for (int i = 0; i + 1 < attributs.length; i += 2) {
+            attribut(attributs[i], attributs[i + 1]);
+        }
+    }
+
+    public void texte(String texte) throws XMLStreamException {
+        w.writeCharacters(texte);
+    }
+
+    // Recopie un noeud DOM et ses descendants
+    public void noeud(Node n) throws XMLStreamException {
+        switch (n.getNodeType()) {
+            case Node.DOCUMENT_NODE:
+                for (Node c = n.getFirstChild(); c != null; c = c.getNextSibling()) noeud(c);
+                break;
+            case Node.ELEMENT_NODE:
+                if (n.hasChildNodes()) w.writeStartElement(n.getNodeName());
+                else w.writeEmptyElement(n.getNodeName());
+                NamedNodeMap attributs = n.getAttributes();
+                for (int i = 0; i < attributs.getLength(); i++) {
+                    Node a = attributs.item(i);
+                    attribut(a.getNodeName(), a.getNodeValue());
+                }
+                if (n.hasChildNodes()) {
+                    for (Node c = n.getFirstChild(); c != null; c = c.getNextSibling()) noeud(c);
+                    w.writeEndElement();
+                }
+                break;
+            case Node.TEXT_NODE:
+                w.writeCharacters(n.getNodeValue());
+                break;
+            case Node.CDATA_SECTION_NODE:
+                cdata(n.getNodeValue());
+                break;
+            case Node.COMMENT_NODE:
+                w.writeComment(n.getNodeValue());
+                break;
+            case Node.PROCESSING_INSTRUCTION_NODE:
+                w.writeProcessingInstruction(n.getNodeName(), n.getNodeValue());
+                break;
+            default:
+                // DOCTYPE et entités: non recopiés, comme avec le Transformer par défaut
+                break;
+        }
+    }
+
+    // L'écrivain du JDK laisse tels quels les sauts de ligne et tabulations d'un attribut;
+    // à la relecture, la normalisation des attributs en ferait des espaces.
+    // Dans ce cas l'attribut est écrit ici, avec &#10; &#13; &#9; comme le faisait le Transformer.
+    private void attribut(String nom, String valeur) throws XMLStreamException {
+        if (valeur.indexOf('\n') < 0 && valeur.indexOf('\r') < 0 && valeur.indexOf('\t') < 0) {
+            w.writeAttribute(nom, valeur);
+            return;
+        }
+        StringBuilder sb = new StringBuilder(nom.length() + valeur.length() + 32);
+        sb.append(' ').append(nom).append("=\"");
+        for (int i = 0; i < valeur.length(); i += Character.charCount(valeur.codePointAt(i))) {
+            int c = valeur.codePointAt(i);
+            switch (c) {
+                case '&': sb.append("&amp;"); break;
+                case '<': sb.append("&lt;"); break;
+                case '>': sb.append("&gt;"); break;
+                case '"': sb.append("&quot;"); break;
+                case '\n': sb.append("&#10;"); break;
+                case '\r': sb.append("&#13;"); break;
+                case '\t': sb.append("&#9;"); break;
+                default:
+                    String caractere = new String(Character.toChars(c));
+                    if (encodeur.canEncode(caractere)) sb.append(caractere);
+                    else sb.append("&#x").append(Integer.toHexString(c)).append(';');
+            }
+        }
+        sb.append('"');
+        // La balise ouvrante est encore ouverte: l'attribut suit directement ce que l'écrivain a produit
+        w.flush();
+        try {
+            out.write(sb.toString().getBytes(encodeur.charset()));
+        } catch (IOException e) {
+            throw new XMLStreamException(e);
+        }
+    }
+
+    // Une section CDATA ne peut contenir ni référence de caractère ni "]]>":
+    // on la coupe autour des caractères absents de l'encodage, écrits en &#...;
+    // par writeCharacters, et entre "]]" et ">", comme le faisait le Transformer
+    private void cdata(String texte) throws XMLStreamException {
+        if (texte.indexOf("]]>") < 0 && encodeur.canEncode(texte)) {
+            w.writeCData(texte);
+            return;
+        }
+        int debut = 0;
+        int i = 0;
+        while (i < texte.length()) {
+            if (texte.startsWith("]]>", i)) {
+                w.writeCData(texte.substring(debut, i + 2));
+                debut = i + 2;
+                i += 2;
+                continue;
+            }
+            int longueur = Character.charCount(texte.codePointAt(i));
+            String c = texte.substring(i, i + longueur);
+            if (!encodeur.canEncode(c)) {
+                if (i > debut) w.writeCData(texte.substring(debut, i));
+                w.writeCharacters(c);
+                debut = i + longueur;
+            }
+            i += longueur;
+        }
+        if (debut < texte.length()) w.writeCData(texte.substring(debut));
+    }
+
+    // Ferme les éléments ouverts et remplace le fichier visé
+    public void terminer() throws IOException, XMLStreamException {
+        w.writeEndDocument();
+        w.close();
+        out.close();
+        try {
+            Files.move(temporaire, cible, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporaire, cible, StandardCopyOption.REPLACE_EXISTING);
+        }
+        termine = true;
+    }
+
+    // Sans terminer(): abandonne l'écriture, le fichier visé reste intact
+    @Override
+    public void close() throws IOException {
+        if (termine) return;
+        try {
+            out.close();
+        } finally {
+            Files.deleteIfExists(temporaire);
+        }
+    }
+
+    // Remplace DOMSource + Transformer pour un document complet
+    public static void ecrire(Document doc, String nomfichier, String encodage) throws IOException, XMLStreamException {
+        EcrivainXML e = new EcrivainXML(nomfichier, encodage);
+        try {
+            e.noeud(doc);
+            e.terminer();
+        } finally {
+            e.close();
+        }
+    }
+}
@@ -0,0 +1,215 @@
+/**
+* Génère des fichiers de test de grande taille, toujours identiques pour une même graine.
+* L'écriture se fait en flux: la mémoire utilisée ne dépend pas du nombre d'enregistrements.
+*
+* java GenerateurDonnees <type> <nombre> <fichier> [graine] [produits]
+*
+* inventaire    <nombre> produits              (~50 octets chacun)
+* bottin        <nombre> personnes             (~55 octets chacune)
+* bottincsv     <nombre> lignes nom,telephone  (pour Bottin importe)
+* transactions  <nombre> clients avec 1 à 5 transactions
+* universite    <nombre> étudiants avec 1 à 4 cours
+* rss           <nombre> items dans un channel
+* achats        <nombre> lignes CSV pour Inventaire, codes de 1 à [produits] (1000 par défaut)
+*
+* ex.: java GenerateurDonnees inventaire 200000000 inventaire.xml   (~10 Go)
+*/
+import java.io.*;
+import java.util.*;
+
+public class GenerateurDonnees {
+
+    private static final String[] PRENOMS = { "Jean", "Marie", "Luc", "Anne", "Yvan", "Élise", "Pierre", "Yvette", "Olive", "René" };
+    private static final String[] NOMS = { "Tremblay", "Gagnon", "Roy", "Côté", "Bouchard", "Gauthier", "Morin", "Lavoie", "Fortin", "Gagné" };
+    private static final String[] SIGLES = { "INF1030", "INF1230", "INF6450", "INF8430", "INF9430", "MAT1013" };
+
+    private final Random hasard;
+
+    public GenerateurDonnees(long graine) {
+        hasard = new Random(graine);
+    }
+
+    public void inventaire(long nombre, String fichier) throws Exception {
+        EcrivainXML w = new EcrivainXML(fichier, "ISO-8859-1");
+        try {
+            w.debut("inventaire");
+            for (long i = 1; i <= nombre; i++) {
+                w.texte("\n ");
+                w.element("produit", "code", Long.toString(i), "prix", montant(100000),
+                    "quantite", Integer.toString(hasard.nextInt(1000)));
+            }
+            w.texte("\n ");
+            w.terminer();
+        } finally {
+            w.close();
+        }
+    }
+
+    public void bottin(long nombre, String fichier) throws Exception {
+        EcrivainXML w = new EcrivainXML(fichier, "ISO-8859-1");
+        try {
+            w.debut("bottin");
+            for (long i = 0; i < nombre; i++) {
+                w.texte("\n ");
+                w.element("personne", "nom", personne(i), "telephone", telephone());
+            }
+            w.texte("\n");
+            w.terminer();
+        } finally {
+            w.close();
+        }
+    }
+
+    public void transactions(long nombre, String fichier) throws Exception {
+        EcrivainXML w = new EcrivainXML(fichier, "ISO-8859-1");
+        try {
+            w.debut("liste");
+            for (long i = 0; i < nombre; i++) {
+                w.texte("\n ");
+                w.debut("client");
+                w.flux().writeAttribute("nom", personne(i));
+                int n = 1 + hasard.nextInt(5);
+                for (int t = 0; t < n; t++) {
+                    w.texte("\n  ");
+                    w.element("transaction", "montant", Integer.toString(1 + hasard.nextInt(5000)));
+                }
+                w.texte("\n ");
+                w.fin();
+            }
+            w.texte("\n");
+            w.terminer();
+        } finally {
+            w.close();
+        }
+    }
+
+    public void universite(long nombre, String fichier) throws Exception {
+        EcrivainXML w = new EcrivainXML(fichier, "ISO-8859-1");
+        try {
+            w.flux().writeProcessingInstruction("xml-stylesheet", "href=\"class.xsl\" type=\"text/xsl\"");
+            w.texte("\n");
+            w.debut("universite");
+            for (long i = 0; i < nombre; i++) {
+                w.texte("\n ");
+                w.debut("etudiant");
+                w.debut("nom");
+                w.texte(personne(i));
+                w.fin();
+                int n = 1 + hasard.nextInt(4);
+                for (int c = 0; c < n; c++) {
+                    w.texte("\n ");
+                    w.element("cours", "sigle", SIGLES[hasard.nextInt(SIGLES.length)], "note", Integer.toString(hasard.nextInt(101)));
+                }
+                w.fin();
+            }
+            w.texte("\n");
+            w.terminer();
+        } finally {
+            w.close();
+        }
+    }
+
+    public void rss(long nombre, String fichier) throws Exception {
+        EcrivainXML w = new EcrivainXML(fichier, "UTF-8");
+        try {
+            w.debut("rss");
+            w.flux().writeAttribute("version", "2.0");
+            w.texte("\n  ");
+            w.debut("channel");
+            champ(w, "    ", "title", "Fil de presse - Données générées");
+            champ(w, "    ", "link", "https://www.example.com");
+            champ(w, "    ", "language", "fr-ca");
+            for (long i = 0; i < nombre; i++) {
+                w.texte("\n    ");
+                w.debut("item");
+                champ(w, "      ", "title", "Article " + i + " de " + personne(i));
+                champ(w, "      ", "pubDate", "Sat, 30 Jul 2022 03:06:56 -0400");
+                champ(w, "      ", "link", "https://www.example.com/article/" + i);
+                champ(w, "      ", "description", phrase(10 + hasard.nextInt(40)));
+                w.texte("\n    ");
+                w.fin();
+            }
+            w.texte("\n  ");
+            w.fin();
+            w.texte("\n");
+            w.terminer();
+        } finally {
+            w.close();
+        }
+    }
+
+    public void bottincsv(long nombre, String fichier) throws IOException {
+        Writer w = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(fichier), "ISO-8859-1"), 1 << 16);
+        try {
+            for (long i = 0; i < nombre; i++) {
+                w.write(personne(i));
+                w.write(',');
+                w.write(telephone());
+                w.write('\n');
+            }
+        } finally {
+            w.close();
+        }
+    }
+
+    // Même format que achats.txt: client, # carte, code produit, quantité
+    public void achats(long nombre, String fichier, int produits) throws IOException {
+        Writer w = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(fichier), "ISO-8859-1"), 1 << 16);
+        try {
+            for (long i = 0; i < nombre; i++) {
+                w.write(" " + personne(i) + ", " + (1000000000L + Math.floorMod(hasard.nextLong(), 9000000000L))
+                    + ", " + (1 + hasard.nextInt(produits)) + ", " + (1 + hasard.nextInt(10)) + "\n");
+            }
+        } finally {
+            w.close();
+        }
+    }
+
+    private void champ(EcrivainXML w, String retrait, String nom, String texte) throws Exception {
+        w.texte("\n" + retrait);
+        w.debut(nom);
+        w.texte(texte);
+        w.fin();
+    }
+
+    // Nom unique pour chaque i
+    private String personne(long i) {
+        return PRENOMS[hasard.nextInt(PRENOMS.length)] + " " + NOMS[hasard.nextInt(NOMS.length)] + " " + i;
+    }
+
+    private String telephone() {
+        return (100 + hasard.nextInt(900)) + "-" + (1000 + hasard.nextInt(9000));
+    }
+
+    // Montant avec deux décimales, sans String.format (trop lent pour des milliards de lignes)
+    private String montant(int maxcents) {
+        int cents = hasard.nextInt(maxcents);
+        int reste = cents % 100;
+        return (cents / 100) + (reste < 10 ? ".0" : ".") + reste;
+    }
+
+    private String phrase(int mots) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < mots; i++) {
+            if (i > 0) sb.append(' ');
+            sb.append(NOMS[hasard.nextInt(NOMS.length)].toLowerCase());
+        }
+        return sb.append('.').toString();
+    }
+
+    public static void main(String[] args) throws Exception {
+        String type = args[0];
+        long nombre = Long.parseLong(args[1]);
+        String fichier = args[2];
+        GenerateurDonnees g = new GenerateurDonnees(args.length > 3 ? Long.parseLong(args[3]) : 6450);
+
+        if (type.equals("inventaire")) g.inventaire(nombre, fichier);
+        else if (type.equals("bottin")) g.bottin(nombre, fichier);
+        else if (type.equals("bottincsv")) g.bottincsv(nombre, fichier);
+        else if (type.equals("transactions")) g.transactions(nombre, fichier);
+        else if (type.equals("universite")) g.universite(nombre, fichier);
+        else if (type.equals("rss")) g.rss(nombre, fichier);
+        else if (type.equals("achats")) g.achats(nombre, fichier, args.length > 4 ? Integer.parseInt(args[4]) : 1000);
+        else throw new IllegalArgumentException("Type inconnu: " + type);
+    }
+}
@@ -9,9 +9,6 @@ import java.io.FileReader;
 import org.w3c.dom.*;
 import java.io.*;
 import javax.xml.parsers.*;
-import javax.xml.transform.*;
-import javax.xml.transform.dom.*;
-import javax.xml.transform.stream.*;
 
 public class Inventaire {
   public static void modifier(String nomdoc, String codeproduitvendu, String quantitevendue) throws Exception {
@@ -62,14 +59,8 @@ public class Inventaire {
 
     }
     // Bloc important -------------------------------------------------
-    TransformerFactory tfact = TransformerFactory.newInstance();
-    Transformer transformer = tfact.newTransformer();
-    transformer.setOutputProperty("encoding", "ISO-8859-1");
-    DOMSource source = new DOMSource(doc);
-    FileWriter fw = new FileWriter(filename);
-    StreamResult result = new StreamResult(fw);
-    transformer.transform(source, result);
-    fw.close();
+    // Écriture en flux dans un fichier temporaire, puis renommage (voir EcrivainXML)
+    EcrivainXML.ecrire(doc, filename, "ISO-8859-1");
   }
 
   public static void main(String[] args) throws Exception {
@@ -0,0 +1,169 @@
+/**
+* Inventaire réparti sur N fichiers (partitions) selon le hachage du code produit.
+* Chaque partition a son propre fil d'exécution: les ventes sont appliquées
+* en parallèle, sans verrou partagé, et chaque partition est réécrite séparément.
+*
+* java InventairePartitionne partitionne inventaire.xml 4   (crée inventaire-0.xml ... inventaire-3.xml)
+* java InventairePartitionne vend achats.txt inventaire 4
+* java InventairePartitionne prix inventaire 4 32
+*/
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import javax.xml.parsers.*;
+import javax.xml.stream.*;
+import org.w3c.dom.*;
+
+public class InventairePartitionne {
+
+    // Marque la fin de la file d'une partition
+    private static final String[] FIN = new String[0];
+
+    // Partition d'un code produit
+    public static int partition(String code, int n) {
+        return Math.floorMod(code.hashCode(), n);
+    }
+
+    // inventaire, 2 -> inventaire-2.xml
+    public static String nomPartition(String base, int i) {
+        return base + "-" + i + ".xml";
+    }
+
+    // Découpe un inventaire existant en n partitions, en une seule lecture en flux
+    public static void partitionne(String nomdoc, String base, int n) throws Exception {
+        EcrivainXML[] sorties = new EcrivainXML[n];
+        InputStream in = new BufferedInputStream(new FileInputStream(nomdoc), 1 << 16);
+        try {
+            for (int i = 0; i < n; i++) {
+                sorties[i] = new EcrivainXML(nomPartition(base, i), "ISO-8859-1");
+                sorties[i].debut("inventaire");
+            }
+            XMLStreamReader r = XMLInputFactory.newInstance().createXMLStreamReader(in);
+            while (r.hasNext()) {
+                if (r.next() == XMLStreamConstants.START_ELEMENT && r.getLocalName().equals("produit")) {
+                    EcrivainXML w = sorties[partition(r.getAttributeValue(null, "code"), n)];
+                    w.texte("\n ");
+                    w.element("produit",
+                        "code", r.getAttributeValue(null, "code"),
+                        "prix", r.getAttributeValue(null, "prix"),
+                        "quantite", r.getAttributeValue(null, "quantite"));
+                }
+            }
+            r.close();
+            for (EcrivainXML w : sorties) {
+                w.texte("\n");
+                w.terminer();
+            }
+        } finally {
+            in.close();
+            for (EcrivainXML w : sorties) {
+                if (w != null) w.close();
+            }
+        }
+    }
+
+    // Lit le CSV des achats une fois et envoie chaque vente au fil de sa partition
+    public static void vend(String fichiercsv, final String base, int n) throws Exception {
+        List<BlockingQueue<String[]>> files = new ArrayList<BlockingQueue<String[]>>();
+        List<Future<Integer>> resultats = new ArrayList<Future<Integer>>();
+        ExecutorService fils = Executors.newFixedThreadPool(n);
+        try {
+            for (int i = 0; i < n; i++) {
+                final BlockingQueue<String[]> file = new ArrayBlockingQueue<String[]>(4096);
+                final String nom = nomPartition(base, i);
+                files.add(file);
+                resultats.add(fils.submit(new Callable<Integer>() {
+                    public Integer call() throws Exception {
+                        return appliquer(nom, file);
+                    }
+                }));
+            }
+
+            BufferedReader lelecteur = new BufferedReader(new FileReader(fichiercsv), 1 << 16);
+            try {
+                String line;
+                while ((line = lelecteur.readLine()) != null) {
+                    // Client, # carte, code produit et quantité
+                    String[] listeclient = line.split(",");
+                    if (listeclient.length < 4) continue;
+                    String idproduit = listeclient[2].replaceAll("\\s", "");
+                    String quantite = listeclient[3].replaceAll("\\s", "");
+                    int i = partition(idproduit, n);
+                    envoyer(files.get(i), resultats.get(i), new String[] { idproduit, quantite });
+                }
+            } finally {
+                lelecteur.close();
+            }
+            for (int i = 0; i < n; i++) envoyer(files.get(i), resultats.get(i), FIN);
+
+            int total = 0;
+            for (Future<Integer> f : resultats) total += f.get();
+            System.out.println(total + " vente(s) appliquée(s) sur " + n + " partition(s)");
+        } finally {
+            fils.shutdownNow();
+        }
+    }
+
+    // Attend de la place dans la file, sans rester bloqué si le fil de la partition a échoué
+    private static void envoyer(BlockingQueue<String[]> file, Future<Integer> travail, String[] vente) throws Exception {
+        while (!file.offer(vente, 100, TimeUnit.MILLISECONDS)) {
+            if (travail.isDone()) travail.get();
+        }
+    }
+
+    // Travail d'une partition: charge son fichier, applique ses ventes, le réécrit
+    private static int appliquer(String nomdoc, BlockingQueue<String[]> file) throws Exception {
+        DocumentBuilder parser = DocumentBuilderFactory.newInstance().newDocumentBuilder();
+        Document doc = parser.parse(nomdoc);
+        // Un code peut apparaître plusieurs fois: comme Inventaire.modifier, chaque vente
+        // s'applique à tous les produits de ce code
+        Map<String, List<Element>> produits = new HashMap<String, List<Element>>();
+        NodeList nl = doc.getDocumentElement().getElementsByTagName("produit");
+        for (int k = 0; k < nl.getLength(); ++k) {
+            Element e = (Element) nl.item(k);
+            List<Element> memecode = produits.get(e.getAttribute("code"));
+            if (memecode == null) {
+                memecode = new ArrayList<Element>(1);
+                produits.put(e.getAttribute("code"), memecode);
+            }
+            memecode.add(e);
+        }
+
+        int ventes = 0;
+        String[] vente;
+        while ((vente = file.take()) != FIN) {
+            List<Element> memecode = produits.get(vente[0]);
+            // Code inconnu: ignoré, comme dans Inventaire.modifier
+            if (memecode == null) continue;
+            for (Element e : memecode) {
+                int quantite = Integer.parseInt(e.getAttribute("quantite")) - Integer.parseInt(vente[1]);
+                e.setAttribute("quantite", Integer.toString(quantite));
+            }
+            ventes++;
+        }
+        // Une seule écriture par partition, une fois ses ventes appliquées
+        if (ventes > 0) EcrivainXML.ecrire(doc, nomdoc, "ISO-8859-1");
+        return ventes;
+    }
+
+    // Recherche du prix comme xpathsearch, dans la seule partition qui contient le code.
+    // Survol paresseux, sans DOM; le code est comparé comme chaîne, comme pour le choix de la partition.
+    public static String prix(String base, int n, String code) throws Exception {
+        DocumentParesseux document = new DocumentParesseux(nomPartition(base, partition(code, n)));
+        DocumentParesseux.Entree racine = document.racine();
+        if (!racine.nom.equals("inventaire")) return "";
+        DocumentParesseux.Entree produit = document.premier(racine, "produit", "code", code);
+        return produit == null ? "" : produit.attribut("prix");
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args[0].equals("partitionne")) {
+            String base = args[1].endsWith(".xml") ? args[1].substring(0, args[1].length() - 4) : args[1];
+            partitionne(args[1], base, Integer.parseInt(args[2]));
+        } else if (args[0].equals("vend")) {
+            vend(args[1], args[2], Integer.parseInt(args[3]));
+        } else if (args[0].equals("prix")) {
+            System.out.println("Le prix est de " + prix(args[1], Integer.parseInt(args[2]), args[3]) + " $");
+        }
+    }
+}
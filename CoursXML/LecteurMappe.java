@@ -0,0 +1,145 @@
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import javax.xml.parsers.*;
+import org.w3c.dom.*;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+/**
+* Lecture d'un fichier XML par projection en mémoire (FileChannel.map).
+* Le parseur lit directement les octets projetés, sans tampon intermédiaire,
+* et positions() repère les balises ouvrantes sans construire de DOM.
+*
+* java LecteurMappe transactions.xml client
+*/
+public class LecteurMappe {
+
+    // Un MappedByteBuffer est limité à 2 Go: les gros fichiers sont projetés par segments
+    private static final int TAILLE_SEGMENT = 1 << 30;
+
+    private final String nomfichier;
+    private final MappedByteBuffer[] segments;
+    private final long taille;
+
+    public LecteurMappe(String nomfichier) throws IOException {
+        this.nomfichier = nomfichier;
+        FileChannel canal = FileChannel.open(Paths.get(nomfichier), StandardOpenOption.READ);
+        try {
+            taille = canal.size();
+            int nbsegments = (int) ((taille + TAILLE_SEGMENT - 1) / TAILLE_SEGMENT);
+            segments = new MappedByteBuffer[nbsegments];
+            for (int i = 0; i < nbsegments; i++) {
+                long debut = (long) i * TAILLE_SEGMENT;
+                segments[i] = canal.map(FileChannel.MapMode.READ_ONLY, debut, Math.min(TAILLE_SEGMENT, taille - debut));
+            }
+        } finally {
+            // La projection reste valide après la fermeture du canal
+            canal.close();
+        }
+    }
+
+    public long taille() {
+        return taille;
+    }
+
+    // Octet à la position absolue pos
+    public byte octet(long pos) {
+        return segments[(int) (pos / TAILLE_SEGMENT)].get((int) (pos % TAILLE_SEGMENT));
+    }
+
+    // Flux sur toute la projection
+    public InputStream flux() {
+        return flux(0, taille);
+    }
+
+    // Flux sur les octets [debut, fin[ de la projection, sans copie préalable
+    public InputStream flux(final long debut, final long fin) {
+        return new InputStream() {
+            private long pos = debut;
+
+            @Override
+            public int read() {
+                return pos < fin ? octet(pos++) & 0xFF : -1;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                if (len == 0) return 0;
+                if (pos >= fin) return -1;
+                int seg = (int) (pos / TAILLE_SEGMENT);
+                int dansseg = (int) (pos % TAILLE_SEGMENT);
+                // On ne lit jamais au-delà du segment courant en un seul appel
+                int n = (int) Math.min(len, Math.min(fin - pos, segments[seg].limit() - dansseg));
+                segments[seg].get(dansseg, b, off, n);
+                pos += n;
+                return n;
+            }
+
+            @Override
+            public long skip(long n) {
+                long saut = Math.max(0, Math.min(n, fin - pos));
+                pos += saut;
+                return saut;
+            }
+
+            @Override
+            public int available() {
+                return (int) Math.min(Integer.MAX_VALUE, fin - pos);
+            }
+        };
+    }
+
+    // Construit le DOM à partir des octets projetés
+    public Document parser(DocumentBuilder builder) throws SAXException, IOException {
+        InputSource source = new InputSource(flux());
+        // Permet de résoudre les références relatives (DTD, XSL) comme parse(String)
+        source.setSystemId(new File(nomfichier).toURI().toString());
+        return builder.parse(source);
+    }
+
+    // Cherche le motif à partir de depuis, retourne -1 si absent
+    public long cherche(byte[] motif, long depuis) {
+        long derniere = taille - motif.length;
+        byte premier = motif[0];
+        for (long pos = depuis; pos <= derniere; pos++) {
+            if (octet(pos) != premier) continue;
+            int k = 1;
+            while (k < motif.length && octet(pos + k) == motif[k]) k++;
+            if (k == motif.length) return pos;
+        }
+        return -1;
+    }
+
+    // Pré-lecture: positions de toutes les balises ouvrantes <balise ...> ou <balise/>
+    // On ne tient pas compte des commentaires ni des sections CDATA.
+    public long[] positions(String balise) {
+        byte[] motif = ("<" + balise).getBytes(StandardCharsets.US_ASCII);
+        long[] trouvees = new long[16];
+        int n = 0;
+        long pos = cherche(motif, 0);
+        while (pos >= 0) {
+            long apres = pos + motif.length;
+            // Évite de confondre <item et <itemize
+            if (apres < taille && finDeNom(octet(apres))) {
+                if (n == trouvees.length) trouvees = Arrays.copyOf(trouvees, n * 2);
+                trouvees[n++] = pos;
+            }
+            pos = cherche(motif, apres);
+        }
+        return Arrays.copyOf(trouvees, n);
+    }
+
+    static boolean finDeNom(byte b) {
+        return b == ' ' || b == '>' || b == '/' || b == '\t' || b == '\n' || b == '\r';
+    }
+
+    public static void main(String[] args) throws Exception {
+        LecteurMappe lecteur = new LecteurMappe(args[0]);
+        long[] pos = lecteur.positions(args[1]);
+        System.out.println(pos.length + " balise(s) <" + args[1] + "> dans " + lecteur.taille() + " octets");
+    }
+}
@@ -0,0 +1,205 @@
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+* Chaîne d'étapes qui tournent chacune dans leur propre fil d'exécution.
+* Les étapes communiquent par des files bornées (ArrayBlockingQueue):
+* une étape rapide bloque quand la file suivante est pleine (contre-pression).
+*
+* Pipeline.de(source, 1024).puis(etape).copie(espion).vers(puits);
+*
+* Aucun fil ne démarre avant vers(): si une étape échoue, toutes les autres
+* existent déjà et sont arrêtées, puis vers() relance l'erreur.
+*/
+public class Pipeline<T> {
+
+    // Produit les éléments de départ (ex.: événements XML lus sur le réseau)
+    public interface Source<S> {
+        void produire(Sortie<S> sortie) throws Exception;
+    }
+
+    // Transforme chaque élément reçu en zéro, un ou plusieurs éléments
+    public interface Etape<E, S> {
+        void traiter(E element, Sortie<S> sortie) throws Exception;
+
+        // Appelée une fois la source épuisée
+        default void terminer(Sortie<S> sortie) throws Exception {}
+    }
+
+    // Consomme les éléments en bout de chaîne
+    public interface Puits<E> {
+        void recevoir(E element) throws Exception;
+
+        // Appelée quand toute la chaîne a réussi
+        default void fermer() throws Exception {}
+
+        // Appelée à la place de fermer() si une étape a échoué: libère les ressources
+        default void abandonner() throws Exception {
+            fermer();
+        }
+    }
+
+    public interface Sortie<S> {
+        void envoyer(S element) throws InterruptedException;
+    }
+
+    // Marque la fin du flux dans une file
+    private static final Object FIN = new Object();
+
+    private final BlockingQueue<Object> file;
+    private final int capacite;
+    private final Controle controle;
+
+    private Pipeline(int capacite, Controle controle) {
+        this.file = new ArrayBlockingQueue<Object>(capacite);
+        this.capacite = capacite;
+        this.controle = controle;
+        controle.files.add(file);
+    }
+
+    // Premier maillon: la source aura son propre fil
+    public static <S> Pipeline<S> de(final Source<S> source, int capacite) {
+        final Pipeline<S> p = new Pipeline<S>(capacite, new Controle());
+        p.controle.ajouter(new Travail() {
+            public void executer() throws Exception {
+                source.produire(p.sortie());
+                p.file.put(FIN);
+            }
+        });
+        return p;
+    }
+
+    // Ajoute une étape; elle lit la file courante et écrit dans une nouvelle file
+    public <S> Pipeline<S> puis(final Etape<T, S> etape) {
+        final Pipeline<S> suivant = new Pipeline<S>(capacite, controle);
+        controle.ajouter(new Travail() {
+            public void executer() throws Exception {
+                Sortie<S> sortie = suivant.sortie();
+                T element;
+                while ((element = prendre()) != null) {
+                    etape.traiter(element, sortie);
+                }
+                etape.terminer(sortie);
+                suivant.file.put(FIN);
+            }
+        });
+        return suivant;
+    }
+
+    // Dérivation facultative (débogage): chaque élément est passé à l'espion puis transmis
+    public Pipeline<T> copie(final Puits<T> espion) {
+        if (espion == null) return this;
+        final Pipeline<T> suivant = new Pipeline<T>(capacite, controle);
+        controle.ajouter(new Travail() {
+            public void executer() throws Exception {
+                vider(espion, suivant);
+            }
+        });
+        return suivant;
+    }
+
+    // Dernier maillon: démarre toutes les étapes, attend leur fin et relance la première erreur
+    // (une Error, comme OutOfMemoryError, arrive enveloppée dans une ExecutionException)
+    public void vers(final Puits<T> puits) throws Exception {
+        controle.ajouter(new Travail() {
+            public void executer() throws Exception {
+                vider(puits, null);
+            }
+        });
+        controle.demarrer();
+        controle.attendre();
+    }
+
+    // Passe chaque élément au puits (et à la file suivante s'il y en a une).
+    // Le puits est toujours fermé ou abandonné, même en cas d'erreur.
+    private void vider(Puits<T> puits, Pipeline<T> suivant) throws Exception {
+        boolean fini = false;
+        try {
+            T element;
+            while ((element = prendre()) != null) {
+                puits.recevoir(element);
+                if (suivant != null) suivant.file.put(element);
+            }
+            if (suivant != null) suivant.file.put(FIN);
+            fini = true;
+        } finally {
+            // FIN peut aussi venir d'un échec ailleurs dans la chaîne
+            if (fini && controle.erreur == null) puits.fermer();
+            else puits.abandonner();
+        }
+    }
+
+    private Sortie<T> sortie() {
+        return new Sortie<T>() {
+            public void envoyer(T element) throws InterruptedException {
+                file.put(element);
+            }
+        };
+    }
+
+    // Retourne null à la fin du flux
+    @SuppressWarnings("unchecked")
+    private T prendre() throws InterruptedException {
+        Object o = file.take();
+        return o == FIN ? null : (T) o;
+    }
+
+    private interface Travail {
+        void executer() throws Exception;
+    }
+
+    // Étapes de la chaîne, leurs files et première erreur rencontrée
+    private static class Controle {
+        private final List<Travail> travaux = new ArrayList<Travail>();
+        private final List<BlockingQueue<Object>> files = new ArrayList<BlockingQueue<Object>>();
+        private final List<Thread> fils = new ArrayList<Thread>();
+        private volatile Exception erreur;
+
+        void ajouter(Travail travail) {
+            if (!fils.isEmpty()) throw new IllegalStateException("Pipeline déjà démarré");
+            travaux.add(travail);
+        }
+
+        // Crée tous les fils avant d'en démarrer un: echouer() les connaît tous
+        synchronized void demarrer() {
+            for (final Travail travail : travaux) {
+                Thread t = new Thread(new Runnable() {
+                    public void run() {
+                        try {
+                            travail.executer();
+                        } catch (Exception e) {
+                            echouer(e);
+                        } catch (Throwable t) {
+                            // Error (assertion, mémoire épuisée...): arrête aussi la chaîne
+                            echouer(new ExecutionException(t));
+                        }
+                    }
+                }, "pipeline-" + fils.size());
+                t.setDaemon(true);
+                fils.add(t);
+            }
+            for (Thread t : fils) t.start();
+        }
+
+        // Une étape a échoué: on débloque les autres, qu'elles attendent
+        // une file vide (FIN) ou une file pleine (interruption)
+        synchronized void echouer(Exception e) {
+            if (erreur != null) return;
+            erreur = e;
+            for (BlockingQueue<Object> file : files) {
+                file.clear();
+                file.offer(FIN);
+            }
+            for (Thread t : fils) {
+                if (t != Thread.currentThread()) t.interrupt();
+            }
+        }
+
+        void attendre() throws Exception {
+            for (Thread t : fils) {
+                t.join();
+            }
+            if (erreur != null) throw erreur;
+        }
+    }
+}
@@ -0,0 +1,282 @@
+/**
+* Petit serveur HTTP qui publie le fil RSS déjà mis en forme, au lieu d'écrire
+* recopy.xml sur le disque et de l'ouvrir dans le navigateur.
+*
+* /              page HTML (les articles sont rendus une seule fois, à leur arrivée)
+* /flux.json     les articles en JSON
+* /evenements    nouveaux articles seulement (Server-Sent Events, reprise avec Last-Event-ID)
+*
+* Les pages complètes ont un ETag (réponse 304 si rien n'a changé) et sont compressées
+* en gzip si le client l'accepte. Avec JDK 21 et plus, chaque requête a son fil virtuel.
+*
+* Le serveur n'écoute que sur la boucle locale (localhost); pour l'ouvrir au réseau,
+* donner l'adresse d'écoute en troisième argument (ex.: 0.0.0.0 pour toutes les interfaces).
+*
+* java ServeurRSS [URI] [port] [adresse]
+*/
+import java.io.*;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.zip.GZIPOutputStream;
+import com.sun.net.httpserver.*;
+
+public class ServeurRSS {
+
+    // Nombre d'articles gardés; doit dépasser le nombre d'items du fil,
+    // sinon un article retiré serait republié à la lecture suivante
+    private static final int MAX_ARTICLES = 500;
+
+    // Un article publié: numéro d'événement et rendus calculés une seule fois
+    private static class Publie {
+        final long id;
+        final String cle;
+        final String html;
+        final String json;
+
+        Publie(long id, Article article) {
+            this.id = id;
+            this.cle = article.cle();
+            this.html = article.html();
+            this.json = article.json();
+        }
+    }
+
+    // Réponse prête à envoyer, refaite seulement quand un article arrive
+    private static class Rendu {
+        final String etag;
+        final byte[] html, htmlgzip, json, jsongzip;
+
+        Rendu(String etag, String html, String json) throws IOException {
+            this.etag = etag;
+            this.html = html.getBytes(StandardCharsets.UTF_8);
+            this.htmlgzip = gzip(this.html);
+            this.json = json.getBytes(StandardCharsets.UTF_8);
+            this.jsongzip = gzip(this.json);
+        }
+    }
+
+    private final String uri;
+    private final HttpServer serveur;
+    private final ExecutorService fils = executeur();
+    private final ScheduledExecutorService lecture = Executors.newSingleThreadScheduledExecutor();
+    private final long periode;
+    private final String demarrage = Long.toHexString(System.currentTimeMillis());
+
+    // Protégés par this; articles va du plus ancien au plus récent
+    private final ArrayDeque<Publie> articles = new ArrayDeque<Publie>();
+    // Clés (guid, sinon lien) des articles gardés
+    private final Set<String> cles = new HashSet<String>();
+    private final List<BlockingQueue<Publie>> clients = new ArrayList<BlockingQueue<Publie>>();
+    private long dernier = 0;
+    private volatile Rendu rendu;
+
+    // periode: délai entre deux lectures du fil, en secondes.
+    // Écoute sur la boucle locale seulement, comme le fichier local que le serveur remplace.
+    public ServeurRSS(String uri, int port, long periode) throws IOException {
+        this(uri, InetAddress.getLoopbackAddress(), port, periode);
+    }
+
+    // adresse: interface d'écoute, à choisir explicitement pour ouvrir le serveur au réseau
+    public ServeurRSS(String uri, InetAddress adresse, int port, long periode) throws IOException {
+        this.uri = uri;
+        this.periode = periode;
+        this.rendu = rendre();
+        serveur = HttpServer.create(new InetSocketAddress(adresse, port), 0);
+        serveur.setExecutor(fils);
+        serveur.createContext("/", new HttpHandler() {
+            public void handle(HttpExchange ex) throws IOException {
+                if (!ex.getRequestURI().getPath().equals("/")) {
+                    ex.sendResponseHeaders(404, -1);
+                    ex.close();
+                    return;
+                }
+                Rendu r = rendu;
+                repondre(ex, "text/html; charset=UTF-8", r.etag, r.html, r.htmlgzip);
+            }
+        });
+        serveur.createContext("/flux.json", new HttpHandler() {
+            public void handle(HttpExchange ex) throws IOException {
+                if (!ex.getRequestURI().getPath().equals("/flux.json")) {
+                    ex.sendResponseHeaders(404, -1);
+                    ex.close();
+                    return;
+                }
+                Rendu r = rendu;
+                repondre(ex, "application/json; charset=UTF-8", r.etag, r.json, r.jsongzip);
+            }
+        });
+        serveur.createContext("/evenements", new HttpHandler() {
+            public void handle(HttpExchange ex) throws IOException {
+                evenements(ex);
+            }
+        });
+    }
+
+    // Fils virtuels si la JVM les offre (JDK 21+), sinon un fil par requête active
+    private static ExecutorService executeur() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    public void demarrer() {
+        serveur.start();
+        lecture.scheduleWithFixedDelay(new Runnable() {
+            public void run() {
+                try {
+                    rafraichir();
+                } catch (Exception e) {
+                    // Fil inaccessible: on garde les articles déjà publiés
+                    e.printStackTrace();
+                }
+            }
+        }, 0, periode, TimeUnit.SECONDS);
+    }
+
+    public void arreter() {
+        lecture.shutdownNow();
+        serveur.stop(0);
+        fils.shutdownNow();
+    }
+
+    // Lit le fil avec les étapes de ledevoir et publie les articles encore inconnus
+    public void rafraichir() throws Exception {
+        final List<Article> lus = new ArrayList<Article>();
+        Pipeline.de(ledevoir.lire_rss(uri), 1024)
+            .puis(ledevoir.extraire_items())
+            .vers(new Pipeline.Puits<Article>() {
+                public void recevoir(Article article) {
+                    lus.add(article);
+                }
+            });
+        ajouter(lus);
+    }
+
+    // Le fil donne les articles du plus récent au plus ancien: on les numérote à l'envers
+    public synchronized void ajouter(List<Article> lus) throws IOException {
+        boolean change = false;
+        for (int i = lus.size() - 1; i >= 0; i--) {
+            Article article = lus.get(i);
+            if (!cles.add(article.cle())) continue;
+            Publie p = new Publie(++dernier, article);
+            articles.addLast(p);
+            // Fenêtre bornée: le plus ancien article sort, avec sa clé
+            if (articles.size() > MAX_ARTICLES) cles.remove(articles.removeFirst().cle);
+            for (BlockingQueue<Publie> client : clients) client.offer(p);
+            change = true;
+        }
+        if (change) rendu = rendre();
+    }
+
+    // Page HTML et JSON, du plus récent au plus ancien
+    private synchronized Rendu rendre() throws IOException {
+        StringBuilder html = new StringBuilder(4096);
+        html.append("<!DOCTYPE html><html><head><meta charset=\"UTF-8\"><title>Le Devoir</title></head><body><ol id=\"articles\">\n");
+        StringBuilder json = new StringBuilder(4096).append('[');
+        for (Iterator<Publie> it = articles.descendingIterator(); it.hasNext();) {
+            Publie p = it.next();
+            html.append(p.html).append('\n');
+            if (json.length() > 1) json.append(',');
+            json.append(p.json);
+        }
+        json.append(']');
+        // La page ne reçoit ensuite que les articles plus récents que dernier
+        html.append("</ol><script>\n")
+            .append("var source = new EventSource(\"/evenements?depuis=").append(dernier).append("\");\n")
+            .append("source.addEventListener(\"article\", function(e) {\n")
+            .append("  document.getElementById(\"articles\").insertAdjacentHTML(\"afterbegin\", JSON.parse(e.data).html);\n")
+            .append("});\n</script></body></html>\n");
+        return new Rendu("\"" + demarrage + "-" + dernier + "\"", html.toString(), json.toString());
+    }
+
+    private static void repondre(HttpExchange ex, String type, String etag, byte[] brut, byte[] compresse) throws IOException {
+        Headers h = ex.getResponseHeaders();
+        String accepte = ex.getRequestHeaders().getFirst("Accept-Encoding");
+        boolean gzip = accepte != null && accepte.contains("gzip");
+        // Chaque représentation (brute ou gzip) a son propre ETag
+        if (gzip) etag = etag.substring(0, etag.length() - 1) + "-gz\"";
+        h.set("ETag", etag);
+        h.set("Cache-Control", "no-cache");
+        h.set("Vary", "Accept-Encoding");
+        if (etag.equals(ex.getRequestHeaders().getFirst("If-None-Match"))) {
+            ex.sendResponseHeaders(304, -1);
+            ex.close();
+            return;
+        }
+        byte[] corps = brut;
+        if (gzip) {
+            h.set("Content-Encoding", "gzip");
+            corps = compresse;
+        }
+        h.set("Content-Type", type);
+        ex.sendResponseHeaders(200, corps.length);
+        OutputStream out = ex.getResponseBody();
+        out.write(corps);
+        out.close();
+    }
+
+    // Flux SSE: envoie les articles manqués, puis chaque nouvel article à son arrivée.
+    // Le fil de la requête reste bloqué tant que le client est connecté.
+    private void evenements(HttpExchange ex) throws IOException {
+        long depuis = 0;
+        String reprise = ex.getRequestHeaders().getFirst("Last-Event-ID");
+        String requete = ex.getRequestURI().getQuery();
+        try {
+            if (reprise != null) depuis = Long.parseLong(reprise.trim());
+            else if (requete != null && requete.startsWith("depuis=")) depuis = Long.parseLong(requete.substring(7));
+        } catch (NumberFormatException e) {
+            depuis = 0;
+        }
+
+        ex.getResponseHeaders().set("Content-Type", "text/event-stream; charset=UTF-8");
+        ex.getResponseHeaders().set("Cache-Control", "no-cache");
+        ex.sendResponseHeaders(200, 0);
+        Writer w = new BufferedWriter(new OutputStreamWriter(ex.getResponseBody(), StandardCharsets.UTF_8));
+
+        // Sans limite: un client lent n'accumule que quelques articles par lecture du fil
+        BlockingQueue<Publie> file = new LinkedBlockingQueue<Publie>();
+        synchronized (this) {
+            for (Publie p : articles) {
+                if (p.id > depuis) file.add(p);
+            }
+            clients.add(file);
+        }
+        try {
+            while (true) {
+                Publie p = file.poll(15, TimeUnit.SECONDS);
+                // Commentaire périodique: garde la connexion ouverte et détecte les clients partis
+                if (p == null) w.write(": ping\n\n");
+                else w.write("id: " + p.id + "\nevent: article\ndata: " + p.json + "\n\n");
+                w.flush();
+            }
+        } catch (IOException | InterruptedException e) {
+            // Client déconnecté ou serveur arrêté
+        } finally {
+            synchronized (this) {
+                clients.remove(file);
+            }
+            ex.close();
+        }
+    }
+
+    private static byte[] gzip(byte[] donnees) throws IOException {
+        ByteArrayOutputStream sortie = new ByteArrayOutputStream(donnees.length / 4 + 64);
+        GZIPOutputStream z = new GZIPOutputStream(sortie);
+        z.write(donnees);
+        z.close();
+        return sortie.toByteArray();
+    }
+
+    public static void main(String[] args) throws Exception {
+        String uri = args.length > 0 ? args[0] : "https://www.ledevoir.com/rss/ledevoir.xml";
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 8080;
+        InetAddress adresse = args.length > 2 ? InetAddress.getByName(args[2]) : InetAddress.getLoopbackAddress();
+        new ServeurRSS(uri, adresse, port, 300).demarrer();
+        System.out.println("http://" + (args.length > 2 ? args[2] : "localhost") + ":" + port + "/");
+    }
+}
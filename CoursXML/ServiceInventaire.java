@@ -0,0 +1,178 @@
+/**
+* Inventaire en mémoire partagé par plusieurs fils (ou clients) à la fois.
+* Chaque produit a son propre compteur atomique: deux ventes du même code
+* ne se perdent plus, et des ventes de codes différents ne s'attendent jamais.
+* Le fichier n'est réécrit que par lots (toutes les N ventes, ou périodiquement).
+*
+* java ServiceInventaire inventaire.xml achats.txt [sans-survente]
+*/
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.xml.stream.*;
+
+public class ServiceInventaire {
+
+    private final String nomdoc;
+    private final boolean sansSurvente;
+    private final int lot;
+
+    // Ordre du fichier et prix: fixés au chargement, seulement lus ensuite
+    private final List<String> codes = new ArrayList<String>();
+    private final Map<String, String> prix = new HashMap<String, String>();
+    private final Map<String, AtomicLong> quantites = new HashMap<String, AtomicLong>();
+
+    // Ventes appliquées depuis la dernière écriture
+    private final AtomicLong enattente = new AtomicLong();
+    // Une écriture par lot est déjà demandée et pas encore commencée
+    private final AtomicBoolean lotprevu = new AtomicBoolean();
+    private final ScheduledExecutorService ecrivain = Executors.newSingleThreadScheduledExecutor();
+    private volatile boolean ferme = false;
+
+    // sansSurvente: refuse une vente qui rendrait la quantité négative
+    // lot: nombre de ventes avant une écriture; delai: écriture périodique en millisecondes
+    public ServiceInventaire(String nomdoc, boolean sansSurvente, int lot, long delai) throws Exception {
+        this.nomdoc = nomdoc;
+        this.sansSurvente = sansSurvente;
+        this.lot = lot;
+        charger();
+        ecrivain.scheduleWithFixedDelay(new Runnable() {
+            public void run() {
+                ecrireSansErreur();
+            }
+        }, delai, delai, TimeUnit.MILLISECONDS);
+    }
+
+    private void charger() throws Exception {
+        InputStream in = new BufferedInputStream(new FileInputStream(nomdoc), 1 << 16);
+        try {
+            XMLStreamReader r = XMLInputFactory.newInstance().createXMLStreamReader(in);
+            while (r.hasNext()) {
+                if (r.next() == XMLStreamConstants.START_ELEMENT && r.getLocalName().equals("produit")) {
+                    String code = r.getAttributeValue(null, "code");
+                    codes.add(code);
+                    prix.put(code, r.getAttributeValue(null, "prix"));
+                    quantites.put(code, new AtomicLong(Long.parseLong(r.getAttributeValue(null, "quantite"))));
+                }
+            }
+            r.close();
+        } finally {
+            in.close();
+        }
+    }
+
+    // Retire quantite unités du produit; retourne false si le code est inconnu,
+    // si la quantité n'est pas positive (elle ajouterait du stock)
+    // ou, en mode sans survente, si le stock est insuffisant.
+    // Après fermer(), les ventes sont refusées (IllegalStateException) sans rien retirer.
+    public boolean vendre(String code, long quantite) {
+        if (ferme) throw new IllegalStateException("Service d'inventaire fermé");
+        AtomicLong stock = quantites.get(code);
+        if (stock == null || quantite <= 0) return false;
+        if (sansSurvente) {
+            long avant;
+            do {
+                avant = stock.get();
+                if (avant < quantite) return false;
+            } while (!stock.compareAndSet(avant, avant - quantite));
+        } else {
+            stock.addAndGet(-quantite);
+        }
+        // Le fil qui complète un lot déclenche l'écriture, sans l'attendre.
+        // >= et non ==: après un échec, les ventes remises en attente dépassent déjà le lot
+        if (enattente.incrementAndGet() >= lot && lotprevu.compareAndSet(false, true)) {
+            try {
+                ecrivain.execute(new Runnable() {
+                    public void run() {
+                        lotprevu.set(false);
+                        ecrireSansErreur();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // Vente concurrente à fermer(): elle reste en attente pour l'écriture finale
+            }
+        }
+        return true;
+    }
+
+    public long quantite(String code) {
+        AtomicLong stock = quantites.get(code);
+        return stock == null ? 0 : stock.get();
+    }
+
+    // Écrit l'état courant si des ventes sont en attente.
+    // Chaque quantité écrite est une valeur valide, mais des ventes concurrentes
+    // à l'écriture peuvent n'apparaître qu'à la prochaine.
+    // Si l'écriture échoue, les ventes restent en attente pour la suivante.
+    public synchronized void ecrire() throws Exception {
+        long ventes = enattente.getAndSet(0);
+        if (ventes == 0) return;
+        try {
+            EcrivainXML w = new EcrivainXML(nomdoc, "ISO-8859-1");
+            try {
+                w.debut("inventaire");
+                for (String code : codes) {
+                    w.texte("\n ");
+                    w.element("produit", "code", code, "prix", prix.get(code),
+                        "quantite", Long.toString(quantites.get(code).get()));
+                }
+                w.texte("\n ");
+                w.terminer();
+            } finally {
+                w.close();
+            }
+        } catch (Exception e) {
+            enattente.addAndGet(ventes);
+            throw e;
+        }
+    }
+
+    private void ecrireSansErreur() {
+        try {
+            ecrire();
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    // Arrête les écritures périodiques et écrit les dernières ventes.
+    // Les ventes en cours doivent être terminées avant l'appel pour être écrites.
+    public void fermer() throws Exception {
+        ferme = true;
+        ecrivain.shutdown();
+        ecrivain.awaitTermination(1, TimeUnit.MINUTES);
+        ecrire();
+    }
+
+    public static void main(String[] args) throws Exception {
+        boolean sansSurvente = args.length > 2 && args[2].equals("sans-survente");
+        final ServiceInventaire service = new ServiceInventaire(args[0], sansSurvente, 10000, 1000);
+        ExecutorService clients = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        final AtomicLong refusees = new AtomicLong();
+
+        BufferedReader lelecteur = new BufferedReader(new FileReader(args[1]), 1 << 16);
+        try {
+            String line;
+            while ((line = lelecteur.readLine()) != null) {
+                // Client, # carte, code produit et quantité
+                String[] listeclient = line.split(",");
+                if (listeclient.length < 4) continue;
+                final String idproduit = listeclient[2].replaceAll("\\s", "");
+                final long quantite = Long.parseLong(listeclient[3].replaceAll("\\s", ""));
+                clients.execute(new Runnable() {
+                    public void run() {
+                        if (!service.vendre(idproduit, quantite)) refusees.incrementAndGet();
+                    }
+                });
+            }
+        } finally {
+            lelecteur.close();
+            clients.shutdown();
+            clients.awaitTermination(1, TimeUnit.HOURS);
+            service.fermer();
+        }
+        System.out.println(refusees.get() + " vente(s) refusée(s)");
+    }
+}
@@ -13,7 +13,8 @@ public class Transactions {
      DocumentBuilderFactory.newInstance();
     DocumentBuilder parser = 
      factory.newDocumentBuilder();
-    Document doc = parser.parse(args[0]);
+    // Fichier projeté en mémoire (voir LecteurMappe)
+    Document doc = new LecteurMappe(args[0]).parser(parser);
 
 
    Element racine = doc.getDocumentElement();
@@ -3,13 +3,19 @@ import org.xml.sax.SAXException;
 
 import javax.xml.parsers.*;
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import javax.xml.transform.*;
-import javax.xml.transform.dom.*;
-import javax.xml.transform.stream.*;
 
 // Permet d'ouvrir une fenêtre sous windows:
 import java.awt.Desktop;
 import java.net.URI;
+import java.net.URL;
+import java.net.URLConnection;
+
+// Lecture et écriture en flux (StAX) pour le mode pipeline
+import javax.xml.stream.*;
+import javax.xml.stream.events.XMLEvent;
   
 
 public class ledevoir {
@@ -30,14 +36,8 @@ public class ledevoir {
             DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
             DocumentBuilder parser = factory.newDocumentBuilder();
             Document doc = parser.parse(URI);
-            // Écriture d'un document
-            TransformerFactory tfact = TransformerFactory.newInstance();
-            Transformer transformer = tfact.newTransformer();
-            transformer.setOutputProperty(OutputKeys.ENCODING, "ISO-8859-1");DOMSource source = new DOMSource(doc);
-            FileWriter fw = new FileWriter(nom_document_cree);
-            StreamResult result = new StreamResult(fw);
-            transformer.transform(source, result);
-            fw.close();
+            // Écriture d'un document (en flux, avec renommage atomique)
+            EcrivainXML.ecrire(doc, nom_document_cree, "ISO-8859-1");
         }
     // ----------------------------------------------------------------------------------------------------------------------
 
@@ -165,6 +165,124 @@ public class ledevoir {
    
 
 
+    // PIPELINE ------------------------------------------------------------------------------------------------------------------
+    // Lecture réseau -> extraction des items -> rendu HTML -> écriture, en parallèle.
+    // Les étapes s'échangent des événements XML puis des articles par files bornées:
+    // plus besoin de copy.xml et recopy.xml. Si copie_debogage n'est pas null,
+    // les événements lus y sont recopiés au passage (équivalent de copy.xml).
+    public static void publier(String URI, String nom_html, String copie_debogage) throws Exception {
+        Pipeline.de(lire_rss(URI), 1024)
+        .copie(copie_debogage == null ? null : copie_xml(copie_debogage))
+        .puis(extraire_items())
+        .puis(new Pipeline.Etape<Article, String>() {
+            public void traiter(Article article, Pipeline.Sortie<String> sortie) throws Exception {
+                sortie.envoyer(article.html());
+            }
+        })
+        .vers(ecrire_html(nom_html));
+    }
+
+    // Source: les événements XML du fil, lus directement sur le réseau
+    static Pipeline.Source<XMLEvent> lire_rss(final String URI) {
+        return new Pipeline.Source<XMLEvent>() {
+            public void produire(Pipeline.Sortie<XMLEvent> sortie) throws Exception {
+                // Délais bornés: un fil qui ne répond plus fait échouer la lecture au lieu de la bloquer
+                URLConnection connexion = new URL(URI).openConnection();
+                connexion.setConnectTimeout(10000);
+                connexion.setReadTimeout(30000);
+                // StAX décode selon l'encodage réel du fil: modifier_encodage devient inutile
+                InputStream in = connexion.getInputStream();
+                try {
+                    XMLEventReader lecteur = XMLInputFactory.newInstance().createXMLEventReader(in);
+                    while (lecteur.hasNext()) {
+                        sortie.envoyer(lecteur.nextEvent());
+                    }
+                    lecteur.close();
+                } finally {
+                    in.close();
+                }
+            }
+        };
+    }
+
+    // Regroupe les événements d'un <item> en un Article
+    static Pipeline.Etape<XMLEvent, Article> extraire_items() {
+        return new Pipeline.Etape<XMLEvent, Article>() {
+            private Article courant = null;
+            private String champ = null;
+            private final StringBuilder texte = new StringBuilder();
+
+            public void traiter(XMLEvent ev, Pipeline.Sortie<Article> sortie) throws Exception {
+                if (ev.isStartElement()) {
+                    String nom = ev.asStartElement().getName().getLocalPart();
+                    if (nom.equals("item")) courant = new Article();
+                    else if (courant != null) { champ = nom; texte.setLength(0); }
+                } else if (ev.isCharacters()) {
+                    if (champ != null) texte.append(ev.asCharacters().getData());
+                } else if (ev.isEndElement()) {
+                    String nom = ev.asEndElement().getName().getLocalPart();
+                    if (nom.equals("item") && courant != null) {
+                        sortie.envoyer(courant);
+                        courant = null;
+                    } else if (courant != null && nom.equals(champ)) {
+                        String valeur = texte.toString().trim();
+                        if (nom.equals("title")) courant.titre = valeur;
+                        else if (nom.equals("description")) courant.description = valeur;
+                        else if (nom.equals("link")) courant.lien = valeur;
+                        else if (nom.equals("pubDate")) courant.date = valeur;
+                        else if (nom.equals("guid")) courant.guid = valeur;
+                        champ = null;
+                    }
+                }
+            }
+        };
+    }
+
+    // Recopie les événements tels quels dans un fichier XML (débogage)
+    private static Pipeline.Puits<XMLEvent> copie_xml(String nom_fichier) throws Exception {
+        final OutputStream out = new BufferedOutputStream(new FileOutputStream(nom_fichier), 1 << 16);
+        final XMLEventWriter ecrivain = XMLOutputFactory.newInstance().createXMLEventWriter(out, "UTF-8");
+        return new Pipeline.Puits<XMLEvent>() {
+            public void recevoir(XMLEvent ev) throws Exception {
+                ecrivain.add(ev);
+            }
+
+            public void fermer() throws Exception {
+                ecrivain.close();
+                out.close();
+            }
+        };
+    }
+
+    // Écrit la page HTML au fur et à mesure que les articles arrivent
+    // La page est écrite à côté puis renommée: un échec ne laisse pas de page tronquée
+    private static Pipeline.Puits<String> ecrire_html(String nom_html) throws IOException {
+        final File cible = new File(nom_html);
+        final File temporaire = new File(nom_html + ".tmp");
+        final Writer w = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(temporaire), "UTF-8"), 1 << 16);
+        w.write("<!DOCTYPE html><html><head><meta charset=\"UTF-8\"><title>Le Devoir</title></head><body><ol>\n");
+        return new Pipeline.Puits<String>() {
+            public void recevoir(String li) throws Exception {
+                w.write(li);
+                w.write('\n');
+            }
+
+            public void fermer() throws Exception {
+                w.write("</ol></body></html>\n");
+                w.close();
+                Files.move(temporaire.toPath(), cible.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            public void abandonner() throws Exception {
+                w.close();
+                temporaire.delete();
+            }
+        };
+    }
+    // ----------------------------------------------------------------------------------------------------------------------
+
+
+
     // MAIN ----------------------------------------------------------------------------------------------------------------------
     public static void main(String args[]) throws Exception {
         String test = "www.google.com";
@@ -175,6 +293,22 @@ public class ledevoir {
         int a=1;
         int b=0;
 
+        // java ledevoir pipeline [copy.xml]: toutes les étapes en parallèle, sans fichiers intermédiaires
+        if (args.length > 0 && args[0].equals("pipeline")) {
+            String nom_html = "ledevoir.html";
+            publier(URI, nom_html, args.length > 1 ? args[1] : null);
+            ouvrir_nav(new File(nom_html).toURI().toString());
+            return;
+        }
+
+        // java ledevoir serveur [port]: publie le fil par HTTP au lieu d'ouvrir recopy.xml
+        if (args.length > 0 && args[0].equals("serveur")) {
+            int port = args.length > 1 ? Integer.parseInt(args[1]) : 8080;
+            new ServeurRSS(URI, port, 300).demarrer();
+            ouvrir_nav("http://localhost:" + port + "/");
+            return;
+        }
+
 
         afficher(b);
         b = somme(a, b);
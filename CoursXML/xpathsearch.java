@@ -3,9 +3,6 @@
 * javac xpathsearch.java
 * java xpathsearch inventaire.xml 32
 */
-import javax.xml.parsers.*;
- import javax.xml.xpath.*;
-import org.w3c.dom.*;
 
 
 public class xpathsearch {
@@ -20,17 +17,29 @@ String filename = args[0];
 String code = args[1];
 
 
-/* on doit construire une instance du document XML */
- DocumentBuilderFactory dbfact = DocumentBuilderFactory.newInstance();
- DocumentBuilder builder = dbfact.newDocumentBuilder();
- /* on peut traiter directement un URL */
- Document document = builder.parse(filename);
- /* on construit un objet XPath */
- XPathFactory fact = XPathFactory.newInstance();
- XPath xpath = fact.newXPath();
- /* finalement, on peut émettre sa requête XPath sur le document */
- String title = xpath.evaluate("//inventaire/produit[@code=" + code + "]/@prix", document);
+/* pas de DOM complet: on survole le fichier projeté jusqu'au produit recherché */
+ DocumentParesseux document = new DocumentParesseux(filename);
+ /* équivalent de //inventaire/produit[@code=...]/@prix, filtré pendant le survol:
+    comme en XPath, les codes sont comparés comme des nombres (7 trouve code="007") */
+ final double valeur = nombre(code);
+ DocumentParesseux.Entree racine = document.racine();
+ DocumentParesseux.Entree produit = null;
+ if (racine.nom.equals("inventaire")) {
+   produit = document.premier(racine, "produit", new DocumentParesseux.Filtre() {
+     public boolean accepte(DocumentParesseux.Entree e) {
+       return nombre(e.attribut("code")) == valeur;
+     }
+   });
+ }
+ String title = produit == null ? "" : produit.attribut("prix");
     System.out.println("Le prix est de " + title + " $");
 }
+
+/* valeur de number() en XPath 1.0: NaN si ce n'est pas un nombre (NaN n'est égal à rien) */
+static double nombre(String texte) {
+  String t = texte.trim();
+  if (!t.matches("-?([0-9]+(\\.[0-9]*)?|\\.[0-9]+)")) return Double.NaN;
+  return Double.parseDouble(t);
+}
     
 }